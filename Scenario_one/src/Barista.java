@@ -28,6 +28,7 @@ public class Barista implements Runnable {
                     System.out.println(Thread.currentThread().getName() + " is preparing: " + drink.name().toLowerCase() + " (Time: " + preparationTime + "ms)");
                     Thread.sleep(preparationTime); // Simulate the preparation time
                     System.out.println(Thread.currentThread().getName() + " has completed: " + drink.name().toLowerCase());
+                    coffeeShop.completeOrder(drink); // Hand the drink over to anyone following completed orders
                 }
             }
         } catch (InterruptedException e) {
@@ -3,10 +3,16 @@ import java.util.LinkedList;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.Condition;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
 
 /**
  * Represents the coffee shop with a shared order queue.
  * This class ensures thread-safe access to the queue using `ReentrantLock` and `Condition`.
+ * Orders can be placed by blocking customer threads through {@link #placeOrder(DrinkType)},
+ * or streamed without blocking by subscribing {@link #orderIntake()} to a {@link Flow.Publisher} of drinks.
+ * In the streaming case, the coffee shop requests orders in batches, and only once the queue has room for a batch.
+ * At most one batch is reserved for the stream at a time, so blocking customers can always use the rest of the queue.
  */
 public class CoffeeShop {
     private final Queue<DrinkType> orderQueue; // Shared order queue using DrinkType enum
@@ -16,6 +22,14 @@ public class CoffeeShop {
     private final Condition notFull = lock.newCondition();  // Condition for waiting when the queue is full
     private final Condition notEmpty = lock.newCondition(); // Condition for waiting when the queue is empty
 
+    private volatile WorkloadTrace.Recorder traceRecorder; // Records placed orders when set, otherwise null
+
+    private final int demandBatch;          // Number of orders requested from the order stream at a time
+    private OrderIntake activeIntake;       // The intake whose stream is currently subscribed, guarded by the lock
+    private Flow.Subscription subscription; // Subscription to the order stream, guarded by the lock
+    private int outstandingDemand;          // Orders requested from the stream but not yet received, guarded by the lock
+    private final SubmissionPublisher<DrinkType> completedOrders = new SubmissionPublisher<>(); // Prepared drinks
+
     /**
      * Constructor to initialize the coffee shop with a maximum number of orders.
      *
@@ -24,6 +38,16 @@ public class CoffeeShop {
     public CoffeeShop(int maxOrders) {
         this.MAX_ORDERS = maxOrders;
         this.orderQueue = new LinkedList<>();
+        this.demandBatch = Math.max(1, maxOrders / 2);
+    }
+
+    /**
+     * Starts or stops recording the orders placed in this coffee shop.
+     *
+     * @param traceRecorder The recorder to write placed orders to, or null to stop recording.
+     */
+    public void setTraceRecorder(WorkloadTrace.Recorder traceRecorder) {
+        this.traceRecorder = traceRecorder;
     }
 
     /**
@@ -34,9 +58,13 @@ public class CoffeeShop {
      * @throws InterruptedException If the thread is interrupted while waiting.
      */
     public void placeOrder(DrinkType drink) throws InterruptedException {
+        WorkloadTrace.Recorder recorder = traceRecorder;
+        if (recorder != null) {
+            recorder.recordOrder(drink); // Record the order as it arrives, before any waiting
+        }
         lock.lock(); // Acquire the lock
         try {
-            while (orderQueue.size() >= MAX_ORDERS) {
+            while (orderQueue.size() + outstandingDemand >= MAX_ORDERS) { // Space requested from the stream is reserved
                 System.out.println(Thread.currentThread().getName() + " is waiting to place an order.");
                 notFull.await(); // Wait for space in the queue
             }
@@ -51,24 +79,231 @@ public class CoffeeShop {
     /**
      * Method for baristas to prepare orders from the queue.
      * If the queue is empty, baristas wait until orders are available.
+     * Taking an order frees space in the queue, which is requested from the order stream if one is subscribed.
      *
      * @return The drink type to be prepared.
      * @throws InterruptedException If the thread is interrupted while waiting.
      */
     public DrinkType prepareOrder() throws InterruptedException {
+        DrinkType drink;
+        Flow.Subscription subscription;
+        int demand;
         lock.lock(); // Acquire the lock
         try {
             while (orderQueue.isEmpty()) {
                 System.out.println(Thread.currentThread().getName() + " is waiting for an order.");
                 notEmpty.await(); // Wait for orders to be placed
             }
-            DrinkType drink = orderQueue.poll(); // Remove and return the next drink
+            drink = orderQueue.poll(); // Remove and return the next drink
             System.out.println(Thread.currentThread().getName() + " is preparing: " + drink.name().toLowerCase());
             notFull.signalAll(); // Notify customers that space is available in the queue
-            return drink;
+            subscription = this.subscription;
+            demand = demandToRequest();
         } finally {
             lock.unlock(); // Release the lock
         }
+        if (demand > 0) {
+            subscription.request(demand); // Request outside the lock, as the stream may deliver synchronously
+        }
+        return drink;
+    }
+
+    /**
+     * Method for baristas to hand over a prepared drink.
+     * The drink is published to the subscribers of {@link #getCompletedOrders()}, unless the shop has been closed.
+     *
+     * @param drink The drink that has been prepared.
+     */
+    public void completeOrder(DrinkType drink) {
+        if (completedOrders.isClosed()) {
+            return; // Nobody is following completed orders any more
+        }
+        try {
+            completedOrders.submit(drink); // Only waits if a subscriber has fallen a full buffer behind
+        } catch (IllegalStateException e) {
+            // Closed between the check and the submit; the drink is simply not published
+        }
+    }
+
+    /**
+     * Returns a publisher of the drinks prepared by the baristas, in the order they were completed.
+     *
+     * @return The publisher of completed orders.
+     */
+    public Flow.Publisher<DrinkType> getCompletedOrders() {
+        return completedOrders;
+    }
+
+    /**
+     * Closes the coffee shop to streamed orders and to followers of completed orders.
+     * The order stream, if any, is cancelled, and subscribers of {@link #getCompletedOrders()} are completed
+     * once they have received every drink published so far. Baristas may keep working; drinks they complete
+     * afterwards are no longer published.
+     */
+    public void close() {
+        Flow.Subscription subscription;
+        lock.lock(); // Acquire the lock
+        try {
+            subscription = this.subscription;
+            endSubscription();
+        } finally {
+            lock.unlock(); // Release the lock
+        }
+        if (subscription != null) {
+            subscription.cancel();
+        }
+        completedOrders.close();
+    }
+
+    /**
+     * Returns a new subscriber through which an order stream can place orders without blocking.
+     * Each intake is bound to the subscription it receives, so signals from a stream that was turned away
+     * never affect the stream currently being served. Only one stream is served at a time;
+     * an intake subscribed while another stream is active has its subscription cancelled.
+     *
+     * @return A subscriber that places the orders it receives in this coffee shop.
+     */
+    public Flow.Subscriber<DrinkType> orderIntake() {
+        return new OrderIntake();
+    }
+
+    /**
+     * Subscriber for a single order stream.
+     */
+    private final class OrderIntake implements Flow.Subscriber<DrinkType> {
+        /**
+         * Called when the intake is subscribed to an order stream.
+         *
+         * @param subscription The subscription to the order stream.
+         */
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            int demand;
+            lock.lock(); // Acquire the lock
+            try {
+                if (CoffeeShop.this.subscription != null || activeIntake != null) {
+                    demand = -1; // Another stream is being served
+                } else {
+                    activeIntake = this;
+                    CoffeeShop.this.subscription = subscription;
+                    demand = demandToRequest();
+                }
+            } finally {
+                lock.unlock(); // Release the lock
+            }
+            if (demand < 0) {
+                subscription.cancel();
+            } else if (demand > 0) {
+                subscription.request(demand);
+            }
+        }
+
+        /**
+         * Called when the order stream delivers an order.
+         * The order always fits in the queue, since space for it was reserved when it was requested.
+         * Once the requested batch has arrived, the next batch is requested if there is room for it.
+         *
+         * @param drink The drink that was ordered.
+         */
+        @Override
+        public void onNext(DrinkType drink) {
+            Flow.Subscription subscription;
+            int demand;
+            lock.lock(); // Acquire the lock
+            try {
+                if (activeIntake != this) {
+                    System.err.println("Ignoring order from an order stream that is not being served: "
+                            + drink.name().toLowerCase());
+                    return;
+                }
+                if (outstandingDemand > 0) {
+                    outstandingDemand--;
+                }
+                orderQueue.add(drink); // Add the drink to the queue
+                System.out.println(Thread.currentThread().getName() + " streamed order: " + drink.name().toLowerCase());
+                notEmpty.signalAll(); // Notify baristas that a new order is available
+                subscription = CoffeeShop.this.subscription;
+                demand = demandToRequest();
+            } finally {
+                lock.unlock(); // Release the lock
+            }
+            WorkloadTrace.Recorder recorder = traceRecorder;
+            if (recorder != null) {
+                recorder.recordOrder(drink);
+            }
+            if (demand > 0) {
+                subscription.request(demand);
+            }
+        }
+
+        /**
+         * Called when the order stream fails. Orders already in the queue are still prepared.
+         *
+         * @param throwable The cause of the failure.
+         */
+        @Override
+        public void onError(Throwable throwable) {
+            if (end()) {
+                System.err.println("Order stream failed: " + throwable.getMessage());
+            }
+        }
+
+        /**
+         * Called when the order stream has delivered all of its orders.
+         */
+        @Override
+        public void onComplete() {
+            if (end()) {
+                System.out.println("Order stream has completed.");
+            }
+        }
+
+        /**
+         * Stops serving this intake's stream, if it is the one being served.
+         *
+         * @return True if this intake's stream was being served.
+         */
+        private boolean end() {
+            lock.lock(); // Acquire the lock
+            try {
+                if (activeIntake != this) {
+                    return false; // A stream that was turned away, or already ended, has no state to clear
+                }
+                endSubscription();
+                return true;
+            } finally {
+                lock.unlock(); // Release the lock
+            }
+        }
+    }
+
+    /**
+     * Forgets the current order stream and releases the space reserved for it. Must be called while holding the lock.
+     */
+    private void endSubscription() {
+        activeIntake = null;
+        subscription = null;
+        outstandingDemand = 0;
+        notFull.signalAll(); // Space reserved for the stream is available again
+    }
+
+    /**
+     * Works out how many orders to request from the order stream, and counts them as outstanding.
+     * A new batch is only requested once the previous one has fully arrived and the queue has room for it,
+     * so the stream is never asked for one order at a time and never holds more than one batch of the queue.
+     * Must be called while holding the lock.
+     *
+     * @return The number of orders to request, or 0 if none should be requested.
+     */
+    private int demandToRequest() {
+        if (subscription == null || outstandingDemand > 0) {
+            return 0;
+        }
+        if (MAX_ORDERS - orderQueue.size() < demandBatch) {
+            return 0;
+        }
+        outstandingDemand = demandBatch;
+        return demandBatch;
     }
 
     /**
@@ -1,3 +1,6 @@
+import java.io.IOException;
+import java.nio.file.Path;
+
 /**
  * Main class to simulate the coffee shop scenario.
  * This class creates customers, baristas, and the coffee shop, and runs the simulation.
@@ -6,13 +9,21 @@ public class CoffeeShopExample {
     /**
      * The main method to start the coffee shop simulation.
      *
-     * @param args Command-line arguments (not used in this program).
+     * @param args Command-line arguments; "--record <file>" records the placed orders for {@link TraceReplayer}.
      * @throws InterruptedException If the main thread is interrupted during execution.
+     * @throws IOException          If the trace file cannot be written.
      */
-    public static void main(String[] args) throws InterruptedException {
+    public static void main(String[] args) throws InterruptedException, IOException {
         // Create a coffee shop with a maximum of 5 orders in the queue
         CoffeeShop coffeeShop = new CoffeeShop(5);
 
+        // Optionally record the workload so it can be replayed later
+        WorkloadTrace.Recorder recorder = null;
+        if (args.length >= 2 && args[0].equals("--record")) {
+            recorder = WorkloadTrace.Recorder.open(Path.of(args[1]));
+            coffeeShop.setTraceRecorder(recorder);
+        }
+
         // Define customer orders using the DrinkType enum
         DrinkType[] aliceOrders = {DrinkType.CAPPUCCINO, DrinkType.LATTE, DrinkType.ESPRESSO};
         DrinkType[] bobOrders = {DrinkType.LATTE, DrinkType.AMERICANO};
@@ -47,6 +58,11 @@ public class CoffeeShopExample {
             baristaThread.join();
         }
 
+        if (recorder != null) {
+            coffeeShop.setTraceRecorder(null);
+            recorder.close();
+        }
+
         System.out.println("Coffee shop is now closed.");
     }
 }
\ No newline at end of file
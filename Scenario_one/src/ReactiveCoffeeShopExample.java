@@ -0,0 +1,200 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Iterator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Main class to compare blocking and streamed order intake in the coffee shop.
+ * The same orders are prepared by the same two baristas twice: first placed by one blocking customer thread
+ * per order, then streamed through a single non-blocking order stream that only produces orders
+ * when the coffee shop asks for them. Elapsed time and peak thread count are printed for both.
+ */
+public class ReactiveCoffeeShopExample {
+    private static final int MAX_ORDERS = 5;   // Queue capacity, as in CoffeeShopExample
+    private static final int NUM_BARISTAS = 2;
+
+    /**
+     * The main method to start the comparison.
+     *
+     * @param args Command-line arguments; an optional number of orders to prepare (defaults to 20).
+     * @throws InterruptedException If the main thread is interrupted during execution.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int numOrders = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+
+        // Cycle through the drink types so both runs prepare exactly the same orders
+        DrinkType[] orders = new DrinkType[numOrders];
+        for (int i = 0; i < numOrders; i++) {
+            orders[i] = DrinkType.values()[i % DrinkType.values().length];
+        }
+
+        String blocking = run("Blocking", orders, coffeeShop -> {
+            // One customer thread per order, each blocking in placeOrder while the queue is full
+            for (int i = 0; i < orders.length; i++) {
+                new Thread(new Customer(coffeeShop, new DrinkType[]{orders[i]}), "Customer-" + (i + 1)).start();
+            }
+        });
+        String streamed = run("Streamed", orders, coffeeShop -> {
+            // A single order stream, driven entirely by the coffee shop's demand
+            new OrderStream(new Iterator<>() {
+                private int placed = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return placed < orders.length;
+                }
+
+                @Override
+                public DrinkType next() {
+                    return orders[placed++];
+                }
+            }).subscribe(coffeeShop.orderIntake());
+        });
+
+        System.out.println();
+        System.out.println(blocking);
+        System.out.println(streamed);
+    }
+
+    /**
+     * Places orders in a fresh coffee shop and waits until the baristas have prepared all of them.
+     *
+     * @param name   The name of the run, used in the summary.
+     * @param orders The orders that will be placed.
+     * @param source Places the orders in the coffee shop.
+     * @return A summary of the elapsed time and thread usage.
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    private static String run(String name, DrinkType[] orders, OrderSource source) throws InterruptedException {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        int threadsBefore = threads.getThreadCount();
+        threads.resetPeakThreadCount();
+
+        CoffeeShop coffeeShop = new CoffeeShop(MAX_ORDERS);
+
+        // Follow completed orders so we know when every drink has been prepared
+        CountDownLatch allCompleted = new CountDownLatch(orders.length);
+        coffeeShop.getCompletedOrders().subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE); // Counting is cheap, so take everything
+            }
+
+            @Override
+            public void onNext(DrinkType drink) {
+                allCompleted.countDown();
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                System.err.println("Completed orders failed: " + throwable.getMessage());
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+
+        // Create and start barista threads
+        Thread[] baristaThreads = new Thread[NUM_BARISTAS];
+        for (int i = 0; i < baristaThreads.length; i++) {
+            baristaThreads[i] = new Thread(new Barista(coffeeShop), name + "-Barista-" + (i + 1));
+            baristaThreads[i].start();
+        }
+
+        long startNanos = System.nanoTime();
+        source.placeOrders(coffeeShop);
+        allCompleted.await();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        int peakThreads = threads.getPeakThreadCount();
+
+        // Stop all barista threads by interrupting them
+        for (Thread baristaThread : baristaThreads) {
+            baristaThread.interrupt();
+        }
+        for (Thread baristaThread : baristaThreads) {
+            baristaThread.join();
+        }
+        coffeeShop.close();
+
+        return name + ": prepared " + orders.length + " orders in " + elapsedMillis + "ms, peak of "
+                + peakThreads + " threads (" + threadsBefore + " before the run).";
+    }
+
+    /**
+     * Places a run's orders in the coffee shop.
+     */
+    private interface OrderSource {
+        void placeOrders(CoffeeShop coffeeShop);
+    }
+
+    /**
+     * A publisher that emits orders from an iterator, but only as many as have been requested.
+     * It never blocks: orders are emitted on whichever thread requests them, and nothing is emitted without demand.
+     */
+    static class OrderStream implements Flow.Publisher<DrinkType> {
+        private final Iterator<DrinkType> orders; // Orders still to be emitted
+
+        /**
+         * Constructor to initialize the stream with the orders to emit.
+         *
+         * @param orders The orders to emit, in order.
+         */
+        OrderStream(Iterator<DrinkType> orders) {
+            this.orders = orders;
+        }
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super DrinkType> subscriber) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                private final AtomicLong demand = new AtomicLong();       // Requested but not yet emitted
+                private final AtomicInteger emitting = new AtomicInteger(); // Serializes emission across threads
+                private final AtomicBoolean done = new AtomicBoolean();
+
+                @Override
+                public void request(long n) {
+                    if (n <= 0) {
+                        if (done.compareAndSet(false, true)) {
+                            subscriber.onError(new IllegalArgumentException("Demand must be positive"));
+                        }
+                        return;
+                    }
+                    demand.accumulateAndGet(n, (current, added) -> {
+                        long total = current + added;
+                        return total < 0 ? Long.MAX_VALUE : total; // Cap at unbounded demand
+                    });
+                    emit();
+                }
+
+                @Override
+                public void cancel() {
+                    done.set(true);
+                }
+
+                /**
+                 * Emits as many orders as there is demand for. Only one thread emits at a time;
+                 * a thread that adds demand while another is emitting makes that thread go round again.
+                 */
+                private void emit() {
+                    if (emitting.getAndIncrement() != 0) {
+                        return;
+                    }
+                    do {
+                        while (!done.get() && demand.get() > 0 && orders.hasNext()) {
+                            demand.decrementAndGet();
+                            subscriber.onNext(orders.next());
+                        }
+                        if (!orders.hasNext() && done.compareAndSet(false, true)) {
+                            subscriber.onComplete();
+                        }
+                    } while (emitting.decrementAndGet() != 0);
+                }
+            });
+        }
+    }
+}
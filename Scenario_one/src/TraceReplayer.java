@@ -0,0 +1,155 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays a recorded workload trace against a coffee shop.
+ * Every recorded customer thread gets its own replay thread, which places the same orders in the same order,
+ * at the original pace, at a scaled pace, or as fast as the coffee shop accepts them.
+ */
+public class TraceReplayer {
+    public static final double MAX_SPEED = Double.POSITIVE_INFINITY; // Ignore the recorded timestamps
+
+    private final List<WorkloadTrace.Event> events; // Recorded events, in recording order
+    private final double speed;                     // 1.0 is the original pace, 2.0 twice as fast, and so on
+
+    /**
+     * Constructor to initialize the replayer with the events to replay.
+     *
+     * @param events The recorded events.
+     * @param speed  The factor by which to speed up the recorded pace, or {@link #MAX_SPEED}.
+     * @throws IllegalArgumentException If the speed is not positive.
+     */
+    public TraceReplayer(List<WorkloadTrace.Event> events, double speed) {
+        if (!(speed > 0)) {
+            throw new IllegalArgumentException("Replay speed must be positive");
+        }
+        this.events = events;
+        this.speed = speed;
+    }
+
+    /**
+     * Places every recorded order in the coffee shop and waits until all of them have been accepted.
+     *
+     * @param coffeeShop The coffee shop to drive.
+     * @throws InterruptedException If the calling thread is interrupted while waiting.
+     */
+    public void replay(CoffeeShop coffeeShop) throws InterruptedException {
+        // Keep each recorded thread's orders together so their relative order is preserved
+        Map<Long, List<WorkloadTrace.Event>> eventsByThread = new LinkedHashMap<>();
+        for (WorkloadTrace.Event event : events) {
+            eventsByThread.computeIfAbsent(event.threadId(), id -> new ArrayList<>()).add(event);
+        }
+
+        long startNanos = System.nanoTime();
+        List<Thread> threads = new ArrayList<>();
+        for (Map.Entry<Long, List<WorkloadTrace.Event>> entry : eventsByThread.entrySet()) {
+            List<WorkloadTrace.Event> threadEvents = entry.getValue();
+            Thread thread = new Thread(() -> {
+                try {
+                    for (WorkloadTrace.Event event : threadEvents) {
+                        awaitOffset(startNanos, event.timestampNanos());
+                        coffeeShop.placeOrder(event.drink());
+                    }
+                } catch (InterruptedException e) {
+                    System.out.println(Thread.currentThread().getName() + " was interrupted while replaying orders.");
+                    Thread.currentThread().interrupt(); // Restore the interrupted status
+                }
+            }, "Replay-" + entry.getKey());
+            threads.add(thread);
+            thread.start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    /**
+     * Sleeps until the scaled offset from the start of the replay has been reached.
+     */
+    private void awaitOffset(long startNanos, long offsetNanos) throws InterruptedException {
+        if (speed == MAX_SPEED) {
+            return;
+        }
+        long delay = startNanos + (long) (offsetNanos / speed) - System.nanoTime();
+        if (delay > 0) {
+            TimeUnit.NANOSECONDS.sleep(delay);
+        }
+    }
+
+    /**
+     * Parses a replay speed given on the command line.
+     *
+     * @param value A positive factor such as "1" or "2.5", or "max".
+     * @return The replay speed.
+     * @throws IllegalArgumentException If the value is not a valid speed.
+     */
+    static double parseSpeed(String value) {
+        double speed = value.equalsIgnoreCase("max") ? MAX_SPEED : Double.parseDouble(value);
+        if (!(speed > 0)) {
+            throw new IllegalArgumentException("Replay speed must be positive");
+        }
+        return speed;
+    }
+
+    /**
+     * Replays a trace against a fresh coffee shop staffed like {@link CoffeeShopExample}.
+     *
+     * @param args The trace file, optionally followed by the replay speed (defaults to 1).
+     * @throws IOException          If the trace cannot be read.
+     * @throws InterruptedException If the main thread is interrupted during execution.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.err.println("Usage: TraceReplayer <trace-file> [speed|max]");
+            return;
+        }
+        double speed;
+        try {
+            speed = args.length > 1 ? parseSpeed(args[1]) : 1.0;
+        } catch (IllegalArgumentException e) { // Also covers NumberFormatException
+            System.err.println("Invalid replay speed: " + args[1]);
+            System.err.println("Usage: TraceReplayer <trace-file> [speed|max]");
+            return;
+        }
+        List<WorkloadTrace.Event> events = WorkloadTrace.read(Path.of(args[0]));
+
+        CoffeeShop coffeeShop = new CoffeeShop(5);
+        Thread[] baristaThreads = new Thread[2];
+        for (int i = 0; i < baristaThreads.length; i++) {
+            baristaThreads[i] = new Thread(new Barista(coffeeShop), "Barista-" + (i + 1));
+            baristaThreads[i].start();
+        }
+
+        long startNanos = System.nanoTime();
+        new TraceReplayer(events, speed).replay(coffeeShop);
+
+        // Let the baristas drain the queue and finish the drinks already in hand
+        while (coffeeShop.getQueueSize() > 0) {
+            Thread.sleep(100);
+        }
+        Thread.sleep(maxPreparationTime());
+        for (Thread baristaThread : baristaThreads) {
+            baristaThread.interrupt();
+        }
+        for (Thread baristaThread : baristaThreads) {
+            baristaThread.join();
+        }
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        System.out.println("Replayed " + events.size() + " orders in " + elapsedMillis + "ms.");
+    }
+
+    private static int maxPreparationTime() {
+        int max = 0;
+        for (DrinkType drink : DrinkType.values()) {
+            max = Math.max(max, drink.getPreparationTime());
+        }
+        return max;
+    }
+}
@@ -0,0 +1,173 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary trace of the orders placed in the coffee shop.
+ * A trace starts with a header (magic, version, scenario) followed by fixed-size records,
+ * each holding the event type, the nanoseconds elapsed since recording started,
+ * the ID of the thread that placed the order and the drink ordinal.
+ */
+public final class WorkloadTrace {
+    static final int MAGIC = 0x574C5452;          // "WLTR"
+    static final short VERSION = 1;
+    static final byte SCENARIO_COFFEE_SHOP = 1;
+    static final byte ORDER_PLACED = 1;
+
+    private static final int HEADER_SIZE = 4 + 2 + 1;         // magic + version + scenario
+    private static final int EVENT_SIZE = 1 + 8 + 8 + 1;      // type + timestamp + thread ID + drink
+    private static final int BUFFER_SIZE = 64 * 1024;         // Size of the NIO buffer used for reads and writes
+
+    private WorkloadTrace() {
+    }
+
+    /**
+     * A single recorded order placement.
+     *
+     * @param timestampNanos Nanoseconds elapsed since recording started.
+     * @param threadId       The ID of the thread that placed the order.
+     * @param drink          The drink that was ordered.
+     */
+    public record Event(long timestampNanos, long threadId, DrinkType drink) {
+    }
+
+    /**
+     * Appends events to a trace file through a buffered file channel.
+     * Recording is thread-safe; the buffer is flushed to disk whenever it fills up and on close.
+     */
+    public static final class Recorder implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private final long startNanos = System.nanoTime(); // Origin of all recorded timestamps
+
+        private Recorder(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * Creates (or truncates) the trace file and writes its header.
+         *
+         * @param path The file to record to.
+         * @return A recorder writing to the file.
+         * @throws IOException If the file cannot be opened.
+         */
+        public static Recorder open(Path path) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            Recorder recorder = new Recorder(channel);
+            recorder.buffer.putInt(MAGIC).putShort(VERSION).put(SCENARIO_COFFEE_SHOP);
+            return recorder;
+        }
+
+        /**
+         * Records an order placed by the current thread.
+         *
+         * @param drink The drink that was ordered.
+         * @throws UncheckedIOException If the buffer cannot be flushed to disk.
+         */
+        public synchronized void recordOrder(DrinkType drink) {
+            if (buffer.remaining() < EVENT_SIZE) {
+                flush();
+            }
+            buffer.put(ORDER_PLACED)
+                    .putLong(System.nanoTime() - startNanos)
+                    .putLong(Thread.currentThread().threadId())
+                    .put((byte) drink.ordinal());
+        }
+
+        private void flush() {
+            try {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                buffer.clear();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write workload trace", e);
+            }
+        }
+
+        /**
+         * Flushes any buffered events and closes the trace file.
+         *
+         * @throws IOException If the file cannot be written or closed.
+         */
+        @Override
+        public synchronized void close() throws IOException {
+            try {
+                flush();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Reads every event from a trace file, in the order they were recorded.
+     *
+     * @param path The trace file to read.
+     * @return The recorded events.
+     * @throws IOException If the file cannot be read or is not a coffee shop trace.
+     */
+    public static List<Event> read(Path path) throws IOException {
+        List<Event> events = new ArrayList<>();
+        DrinkType[] drinks = DrinkType.values();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).flip(); // Start empty, in read mode
+            if (!fill(channel, buffer, HEADER_SIZE)) {
+                throw new EOFException("Trace is missing its header");
+            }
+            if (buffer.getInt() != MAGIC || buffer.getShort() != VERSION || buffer.get() != SCENARIO_COFFEE_SHOP) {
+                throw new IOException("Not a version " + VERSION + " coffee shop trace: " + path);
+            }
+            while (fill(channel, buffer, EVENT_SIZE)) {
+                byte type = buffer.get();
+                if (type != ORDER_PLACED) {
+                    throw new IOException("Unknown event type " + type + " in " + path);
+                }
+                long timestampNanos = buffer.getLong();
+                long threadId = buffer.getLong();
+                int drink = buffer.get();
+                if (drink < 0 || drink >= drinks.length) {
+                    throw new IOException("Unknown drink " + drink + " in " + path);
+                }
+                events.add(new Event(timestampNanos, threadId, drinks[drink]));
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Ensures at least the requested number of bytes are available in the buffer.
+     *
+     * @return True if the bytes are available, false if the file ended cleanly before any of them.
+     * @throws EOFException If the file ends part-way through a record.
+     */
+    private static boolean fill(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return true;
+        }
+        buffer.compact();
+        while (buffer.position() < bytes) {
+            if (channel.read(buffer) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        if (buffer.remaining() >= bytes) {
+            return true;
+        }
+        if (buffer.hasRemaining()) {
+            throw new EOFException("Trace ends with a truncated record");
+        }
+        return false;
+    }
+}
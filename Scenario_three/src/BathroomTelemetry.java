@@ -0,0 +1,394 @@
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Tracks stall utilization, occupancy, admission queue length, admission wait and acquire-to-stall latency
+ * for the bathroom.
+ * All state is kept in atomic counters and a fixed-size ring of one-second buckets, so memory stays bounded
+ * and neither updates nor reads ever take the mutex used for stall allocation.
+ */
+public class BathroomTelemetry implements BathroomTelemetryMXBean {
+    public static final String OBJECT_NAME = "FloorBathroomSimulation:type=BathroomTelemetry";
+
+    private static final long BUCKET_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final int HISTORY_BUCKETS = 120;  // Two minutes of history
+    private static final long FREE = Long.MIN_VALUE; // Marks a stall that is not occupied
+
+    private final int numOfStalls;
+    private final long startNanos = System.nanoTime(); // Origin for utilization and time buckets
+
+    // Per-stall counters, indexed by stall number - 1
+    private final AtomicLongArray occupiedSince; // When the stall was taken, or FREE
+    private final AtomicLongArray busyNanos;     // Total time the stall has been occupied, excluding the current use
+    private final AtomicLongArray takeCounts;    // Number of times the stall has been taken
+
+    private final AtomicInteger occupiedStalls = new AtomicInteger();
+    private final AtomicInteger admissionQueueLength = new AtomicInteger();
+    private final LatencyHistogram admissionWait = new LatencyHistogram();  // Waiting for a semaphore permit
+    private final LatencyHistogram acquireLatency = new LatencyHistogram(); // From being admitted to holding a stall
+
+    // Ring of one-second time buckets for occupancy and admission queue length, sharing one set of epochs
+    private final AtomicLongArray bucketEpochs = new AtomicLongArray(HISTORY_BUCKETS);
+    private final LevelBuckets occupancyBuckets = new LevelBuckets();
+    private final LevelBuckets admissionQueueBuckets = new LevelBuckets();
+
+    private ScheduledExecutorService csvDumper; // Writes periodic CSV rows while a dump is running
+    private PrintWriter csvWriter;
+    private Path csvPath;
+
+    /**
+     * Constructor to initialize the telemetry for the given number of stalls.
+     * @param numOfStalls The number of stalls in the bathroom.
+     */
+    public BathroomTelemetry(int numOfStalls) {
+        this.numOfStalls = numOfStalls;
+        this.occupiedSince = new AtomicLongArray(numOfStalls);
+        this.busyNanos = new AtomicLongArray(numOfStalls);
+        this.takeCounts = new AtomicLongArray(numOfStalls);
+        for (int i = 0; i < numOfStalls; i++) {
+            occupiedSince.set(i, FREE);
+        }
+        for (int i = 0; i < HISTORY_BUCKETS; i++) {
+            bucketEpochs.set(i, -1);
+        }
+    }
+
+    /**
+     * Registers this telemetry with the platform MBean server under {@link #OBJECT_NAME}.
+     * @throws JMException If the MBean cannot be registered.
+     */
+    public void register() throws JMException {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+    }
+
+    /**
+     * Called by a user about to wait for a permit on the admission semaphore.
+     * @return The time of the request, to be passed to {@link #admitted(long)}.
+     */
+    public long admissionRequested() {
+        long now = System.nanoTime();
+        admissionQueueLength.incrementAndGet();
+        admissionQueueBuckets.update(bucketFor(now), admissionQueueLength);
+        return now;
+    }
+
+    /**
+     * Called by a user once it has stopped waiting for a permit, whether or not one was granted.
+     */
+    public void admissionEnded() {
+        admissionQueueLength.decrementAndGet();
+        admissionQueueBuckets.update(bucketFor(System.nanoTime()), admissionQueueLength);
+    }
+
+    /**
+     * Called by a user that has been granted a permit on the admission semaphore.
+     * @param requestedAt The time returned by {@link #admissionRequested()}.
+     * @return The time of admission, to be passed to {@link #stallTaken(int, long)}.
+     */
+    public long admitted(long requestedAt) {
+        long now = System.nanoTime();
+        admissionWait.record(now - requestedAt);
+        return now;
+    }
+
+    /**
+     * Called by a user that has taken a stall.
+     * @param stallNumber The 1-based stall number.
+     * @param admittedAt  The time returned by {@link #admitted(long)}.
+     */
+    public void stallTaken(int stallNumber, long admittedAt) {
+        long now = System.nanoTime();
+        occupiedSince.set(stallNumber - 1, now);
+        takeCounts.incrementAndGet(stallNumber - 1);
+        acquireLatency.record(now - admittedAt);
+        occupiedStalls.incrementAndGet();
+        occupancyBuckets.update(bucketFor(now), occupiedStalls);
+    }
+
+    /**
+     * Called by a user that has finished with a stall, before handing it back.
+     * @param stallNumber The 1-based stall number.
+     */
+    public void stallReleased(int stallNumber) {
+        long now = System.nanoTime();
+        long since = occupiedSince.getAndSet(stallNumber - 1, FREE);
+        if (since != FREE) {
+            busyNanos.addAndGet(stallNumber - 1, now - since);
+        }
+        occupiedStalls.decrementAndGet();
+        occupancyBuckets.update(bucketFor(now), occupiedStalls);
+    }
+
+    /**
+     * Returns the ring index for the given time, resetting the bucket if it still holds an older second.
+     * A reset bucket starts from the current levels rather than zero, since those levels still hold.
+     * Updates racing with a reset may be lost; that only affects the peak of a single bucket.
+     */
+    private int bucketFor(long now) {
+        long epoch = (now - startNanos) / BUCKET_NANOS;
+        int index = (int) (epoch % HISTORY_BUCKETS);
+        long current = bucketEpochs.get(index);
+        if (current < epoch && bucketEpochs.compareAndSet(index, current, epoch)) {
+            occupancyBuckets.reset(index, occupiedStalls.get());
+            admissionQueueBuckets.reset(index, admissionQueueLength.get());
+        }
+        return index;
+    }
+
+    /**
+     * Reads the ring oldest first. Each active second reports its peak; a second without any activity
+     * reports the level the gauge was left at, which is the closing level of the previous active second,
+     * the opening level of the next one, or the current level if the whole window was idle.
+     */
+    private int[] history(LevelBuckets buckets, AtomicInteger gauge) {
+        long newest = (System.nanoTime() - startNanos) / BUCKET_NANOS;
+        int[] history = new int[HISTORY_BUCKETS];
+        int level = -1; // Unknown until the first active second
+        for (int i = 0; i < HISTORY_BUCKETS; i++) {
+            long epoch = newest - HISTORY_BUCKETS + 1 + i;
+            if (epoch < 0) {
+                continue; // Before telemetry started
+            }
+            int index = (int) (epoch % HISTORY_BUCKETS);
+            if (bucketEpochs.get(index) == epoch) {
+                if (level < 0) {
+                    // Idle seconds before the first active one were at this second's opening level
+                    int opening = buckets.opening.get(index);
+                    for (int j = 0; j < i; j++) {
+                        if (newest - HISTORY_BUCKETS + 1 + j >= 0) {
+                            history[j] = opening;
+                        }
+                    }
+                }
+                history[i] = buckets.peak.get(index);
+                level = buckets.closing.get(index);
+            } else if (level >= 0) {
+                history[i] = level;
+            }
+        }
+        if (level < 0) {
+            // No activity in the whole window, so the gauge has held its current level throughout
+            int current = gauge.get();
+            for (int i = 0; i < HISTORY_BUCKETS; i++) {
+                if (newest - HISTORY_BUCKETS + 1 + i >= 0) {
+                    history[i] = current;
+                }
+            }
+        }
+        return history;
+    }
+
+    /**
+     * Per-bucket peak, opening and closing levels of a gauge.
+     * Closing levels are carried into idle seconds, so a peak never outlives the second it happened in.
+     */
+    private static final class LevelBuckets {
+        private final AtomicIntegerArray peak = new AtomicIntegerArray(HISTORY_BUCKETS);
+        private final AtomicIntegerArray opening = new AtomicIntegerArray(HISTORY_BUCKETS);
+        private final AtomicIntegerArray closing = new AtomicIntegerArray(HISTORY_BUCKETS);
+
+        /**
+         * Starts a bucket for a new second at the gauge's current level.
+         */
+        void reset(int index, int level) {
+            peak.set(index, level);
+            opening.set(index, level);
+            closing.set(index, level);
+        }
+
+        /**
+         * Folds the gauge's level into a bucket. It is read after the caller's change, so the last writer
+         * stores the newest value rather than the one its own change produced.
+         */
+        void update(int index, AtomicInteger gauge) {
+            int level = gauge.get();
+            peak.accumulateAndGet(index, level, Math::max);
+            closing.set(index, level);
+        }
+    }
+
+    @Override
+    public int getOccupiedStalls() {
+        return occupiedStalls.get();
+    }
+
+    @Override
+    public int getAdmissionQueueLength() {
+        return admissionQueueLength.get();
+    }
+
+    @Override
+    public long getStallsTaken() {
+        return acquireLatency.getTotalCount();
+    }
+
+    @Override
+    public double[] getStallUtilization() {
+        long now = System.nanoTime();
+        double elapsed = Math.max(1, now - startNanos);
+        double[] utilization = new double[numOfStalls];
+        for (int i = 0; i < numOfStalls; i++) {
+            long busy = busyNanos.get(i);
+            long since = occupiedSince.get(i);
+            if (since != FREE) {
+                busy += now - since; // Include the use in progress
+            }
+            utilization[i] = Math.min(1.0, busy / elapsed);
+        }
+        return utilization;
+    }
+
+    @Override
+    public long[] getStallTakeCounts() {
+        long[] counts = new long[numOfStalls];
+        for (int i = 0; i < numOfStalls; i++) {
+            counts[i] = takeCounts.get(i);
+        }
+        return counts;
+    }
+
+    @Override
+    public int[] getOccupancyHistory() {
+        return history(occupancyBuckets, occupiedStalls);
+    }
+
+    @Override
+    public int[] getAdmissionQueueHistory() {
+        return history(admissionQueueBuckets, admissionQueueLength);
+    }
+
+    @Override
+    public double getAcquireLatencyP50Millis() {
+        return acquireLatency.getValueAtPercentile(50) / 1_000_000.0;
+    }
+
+    @Override
+    public double getAcquireLatencyP99Millis() {
+        return acquireLatency.getValueAtPercentile(99) / 1_000_000.0;
+    }
+
+    @Override
+    public double getAcquireLatencyMaxMillis() {
+        return acquireLatency.getMaxValue() / 1_000_000.0;
+    }
+
+    @Override
+    public double getAdmissionWaitP50Millis() {
+        return admissionWait.getValueAtPercentile(50) / 1_000_000.0;
+    }
+
+    @Override
+    public double getAdmissionWaitP99Millis() {
+        return admissionWait.getValueAtPercentile(99) / 1_000_000.0;
+    }
+
+    @Override
+    public double getAdmissionWaitMaxMillis() {
+        return admissionWait.getMaxValue() / 1_000_000.0;
+    }
+
+    /**
+     * Writes the acquire-to-stall latency distribution to a file in HdrHistogram's percentile layout.
+     */
+    private void writeLatencyDistribution(Path path) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(path))) {
+            acquireLatency.writePercentileDistribution(out, 1_000_000.0);
+        }
+    }
+
+    /**
+     * Starts writing a CSV row with the current telemetry every period.
+     * @param path         The CSV file to write.
+     * @param periodMillis The time between rows, in milliseconds.
+     * @throws IOException           If the file cannot be opened.
+     * @throws IllegalStateException If a dump is already running.
+     */
+    public synchronized void startCsvDump(Path path, long periodMillis) throws IOException {
+        if (csvDumper != null) {
+            throw new IllegalStateException("CSV dump already running");
+        }
+        csvWriter = new PrintWriter(Files.newBufferedWriter(path));
+        csvPath = path;
+        StringBuilder header = new StringBuilder("elapsed_ms,occupied_stalls,admission_queue,stalls_taken,"
+                + "admission_wait_p50_ms,admission_wait_p99_ms,admission_wait_max_ms,"
+                + "latency_p50_ms,latency_p99_ms,latency_max_ms");
+        for (int i = 1; i <= numOfStalls; i++) {
+            header.append(",stall_").append(i).append("_utilization");
+        }
+        csvWriter.println(header);
+
+        csvDumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Telemetry-CSV");
+            thread.setDaemon(true); // Never keep the simulation alive just to dump telemetry
+            return thread;
+        });
+        csvDumper.scheduleAtFixedRate(this::writeCsvRow, 0, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void writeCsvRow() {
+        if (csvWriter == null) {
+            return;
+        }
+        StringBuilder row = new StringBuilder();
+        row.append(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos))
+                .append(',').append(getOccupiedStalls())
+                .append(',').append(getAdmissionQueueLength())
+                .append(',').append(getStallsTaken())
+                .append(',').append(getAdmissionWaitP50Millis())
+                .append(',').append(getAdmissionWaitP99Millis())
+                .append(',').append(getAdmissionWaitMaxMillis())
+                .append(',').append(getAcquireLatencyP50Millis())
+                .append(',').append(getAcquireLatencyP99Millis())
+                .append(',').append(getAcquireLatencyMaxMillis());
+        for (double utilization : getStallUtilization()) {
+            row.append(',').append(String.format(Locale.ROOT, "%.4f", utilization));
+        }
+        csvWriter.println(row);
+        csvWriter.flush();
+    }
+
+    /**
+     * Stops the CSV dump after writing a final row, and writes the latency distribution next to it
+     * with an ".hgrm" extension.
+     * The dump thread is not interrupted, since an interrupt would close the file channel under the writer.
+     * @throws IOException If the CSV or the latency distribution cannot be written.
+     */
+    public void stopCsvDump() throws IOException {
+        ScheduledExecutorService dumper;
+        synchronized (this) {
+            dumper = csvDumper;
+            csvDumper = null;
+        }
+        if (dumper == null) {
+            return;
+        }
+        dumper.shutdown();
+        try {
+            dumper.awaitTermination(5, TimeUnit.SECONDS); // Let a row in progress finish
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // Restore the interrupted status; the row is still serialized below
+        }
+        synchronized (this) {
+            writeCsvRow();
+            csvWriter.close();
+            boolean failed = csvWriter.checkError(); // PrintWriter swallows write errors, so check for them here
+            csvWriter = null;
+            if (failed) {
+                throw new IOException("Failed to write telemetry CSV: " + csvPath);
+            }
+            writeLatencyDistribution(Path.of(csvPath + ".hgrm"));
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ * Management interface exposing the bathroom telemetry over JMX.
+ * None of these reads take the mutex used for stall allocation.
+ */
+public interface BathroomTelemetryMXBean {
+    /**
+     * @return The number of stalls currently occupied.
+     */
+    int getOccupiedStalls();
+
+    /**
+     * @return The number of users waiting for a permit on the admission semaphore.
+     */
+    int getAdmissionQueueLength();
+
+    /**
+     * @return The total number of times a stall has been taken.
+     */
+    long getStallsTaken();
+
+    /**
+     * @return The fraction of time each stall has been occupied since telemetry started, indexed by stall number - 1.
+     */
+    double[] getStallUtilization();
+
+    /**
+     * @return The number of times each stall has been taken, indexed by stall number - 1.
+     */
+    long[] getStallTakeCounts();
+
+    /**
+     * @return The highest number of occupied stalls in each of the recent time buckets, oldest first;
+     *         buckets without activity hold the level occupancy was left at.
+     */
+    int[] getOccupancyHistory();
+
+    /**
+     * @return The highest admission queue length in each of the recent time buckets, oldest first;
+     *         buckets without activity hold the level the queue was left at.
+     */
+    int[] getAdmissionQueueHistory();
+
+    /**
+     * @return The median time spent waiting for a permit on the admission semaphore, in milliseconds.
+     */
+    double getAdmissionWaitP50Millis();
+
+    /**
+     * @return The 99th percentile time spent waiting for a permit on the admission semaphore, in milliseconds.
+     */
+    double getAdmissionWaitP99Millis();
+
+    /**
+     * @return The longest time spent waiting for a permit on the admission semaphore, in milliseconds.
+     */
+    double getAdmissionWaitMaxMillis();
+
+    /**
+     * @return The median time from being admitted to holding a stall, in milliseconds.
+     */
+    double getAcquireLatencyP50Millis();
+
+    /**
+     * @return The 99th percentile time from being admitted to holding a stall, in milliseconds.
+     */
+    double getAcquireLatencyP99Millis();
+
+    /**
+     * @return The longest time from being admitted to holding a stall, in milliseconds.
+     */
+    double getAcquireLatencyMaxMillis();
+}
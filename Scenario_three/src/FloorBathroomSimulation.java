@@ -1,6 +1,9 @@
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Random;
 import java.util.concurrent.Semaphore;
+import javax.management.JMException;
 
 /**
  * Simulates a bathroom with limited stalls on a floor shared by multiple users.
@@ -17,27 +20,50 @@ public class FloorBathroomSimulation {
     // Mutex - to ensure only 1 person can modify the stall array at a time
     public static final Semaphore mutex = new Semaphore(1, true);
 
+    // Lock-free telemetry on stall usage, exposed over JMX; never takes the mutex
+    public static final BathroomTelemetry telemetry = new BathroomTelemetry(NUM_OF_STALLS);
+    // Records stall requests when set, otherwise null
+    static volatile WorkloadTrace.Recorder traceRecorder;
+
     /**
      * Represents a bathroom user attempting to use a stall.
      */
-    private static class BathroomUsers implements Runnable {
+    static class BathroomUsers implements Runnable {
         private final boolean isEmployee; // Indicates whether the user is an Employee or Student
+        private final int usageMillis;    // How long the user occupies a stall
 
         /**
          * Constructor for BathroomUsers.
+         * Random usage time between 3 and 5 seconds is chosen to mimic real usage.
          * @param isEmployee True if the user is an Employee, false if a Student.
          */
         public BathroomUsers(boolean isEmployee) {
+            this(isEmployee, new Random().nextInt(3, 5) * 1000);
+        }
+
+        /**
+         * Constructor for BathroomUsers with a fixed usage time, used when replaying a trace.
+         * @param isEmployee  True if the user is an Employee, false if a Student.
+         * @param usageMillis How long the user occupies a stall, in milliseconds.
+         */
+        public BathroomUsers(boolean isEmployee, int usageMillis) {
             this.isEmployee = isEmployee;
+            this.usageMillis = usageMillis;
         }
 
         @Override
         public void run() {
+            WorkloadTrace.Recorder recorder = traceRecorder;
+            if (recorder != null) {
+                recorder.recordStallRequest(isEmployee, usageMillis);
+            }
             try {
-                enterBathroom();
+                long admittedAt = enterBathroom();
                 int stallNumber = takeStall();
                 if (stallNumber != -1) { // Only proceed if a stall was successfully acquired
+                    telemetry.stallTaken(stallNumber, admittedAt);
                     useBathroomStall();
+                    telemetry.stallReleased(stallNumber);
                     releaseStall(stallNumber);
                 }
                 leaveBathroom();
@@ -49,10 +75,18 @@ public class FloorBathroomSimulation {
 
         /**
          * Attempts to acquire a permit to enter the bathroom.
+         * @return The time the permit was granted, used to measure acquire-to-stall latency.
          */
-        private void enterBathroom() throws InterruptedException {
-            semaphore.acquire();
+        private long enterBathroom() throws InterruptedException {
+            long requestedAt = telemetry.admissionRequested();
+            try {
+                semaphore.acquire();
+            } finally {
+                telemetry.admissionEnded();
+            }
+            long admittedAt = telemetry.admitted(requestedAt);
             System.out.println(getFormattedName() + " has entered the bathroom.");
+            return admittedAt;
         }
 
         /**
@@ -86,13 +120,10 @@ public class FloorBathroomSimulation {
 
         /**
          * Simulates the time taken by the user to use the bathroom stall.
-         * Random delay between 3 and 5 seconds is introduced to mimic real usage.
          */
         private void useBathroomStall() {
-            Random random = new Random();
-            int time = random.nextInt(3, 5);
             try {
-                Thread.sleep(time * 1000L);
+                Thread.sleep(usageMillis);
             } catch (InterruptedException e) {
                 System.err.println(getFormattedName() + " was interrupted while using the stall: " + e.getMessage());
                 Thread.currentThread().interrupt(); // Restore the interrupted status
@@ -137,10 +168,52 @@ public class FloorBathroomSimulation {
 
     /**
      * Main method to run the simulation.
+     * @param args Command-line arguments; "--record <file>" records the stall requests for {@link TraceReplayer},
+     *             and "--telemetry <file>" writes a CSV row of telemetry every second.
+     * @throws IOException If the trace or telemetry files cannot be written.
+     * @throws InterruptedException If the main thread is interrupted while waiting for users to finish.
      */
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException, InterruptedException {
+        WorkloadTrace.Recorder recorder = null;
+        boolean dumpingTelemetry = false;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (args[i].equals("--record")) {
+                // Record the workload so it can be replayed later
+                recorder = WorkloadTrace.Recorder.open(Path.of(args[i + 1]));
+                traceRecorder = recorder;
+            } else if (args[i].equals("--telemetry")) {
+                telemetry.startCsvDump(Path.of(args[i + 1]), 1000);
+                dumpingTelemetry = true;
+            }
+        }
+        registerTelemetry();
+
         initializeStalls();
-        createAndStartUserThreads();
+        Thread[] userThreads = createAndStartUserThreads();
+
+        if (recorder != null || dumpingTelemetry) {
+            for (Thread userThread : userThreads) {
+                userThread.join();
+            }
+        }
+        if (recorder != null) {
+            traceRecorder = null;
+            recorder.close();
+        }
+        if (dumpingTelemetry) {
+            telemetry.stopCsvDump();
+        }
+    }
+
+    /**
+     * Registers the telemetry MBean so it can be watched with JConsole or any other JMX client.
+     */
+    static void registerTelemetry() {
+        try {
+            telemetry.register();
+        } catch (JMException e) {
+            System.err.println("Could not register bathroom telemetry: " + e.getMessage());
+        }
     }
 
     /**
@@ -154,9 +227,11 @@ public class FloorBathroomSimulation {
 
     /**
      * Creates and starts threads for each user.
+     * @return The started user threads.
      */
-    private static void createAndStartUserThreads() {
+    private static Thread[] createAndStartUserThreads() {
         Random random = new Random(); // Initialize the random number generator
+        Thread[] userThreads = new Thread[NUM_USERS];
         for (int i = 1; i <= NUM_USERS; i++) {
             boolean isEmployee = random.nextBoolean(); // Randomly assign a role (Employee or Student)
             BathroomUsers user = new BathroomUsers(isEmployee);
@@ -167,7 +242,9 @@ public class FloorBathroomSimulation {
                 userThread.setPriority(Thread.NORM_PRIORITY); // Students have normal priority
             }
             userThread.start();
+            userThreads[i - 1] = userThread;
         }
+        return userThreads;
     }
 
     /**
@@ -0,0 +1,134 @@
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free, fixed-size histogram of latencies in nanoseconds.
+ * Values are grouped into power-of-two ranges, each split into 16 linear sub-buckets,
+ * so every recorded value is kept to within about 6% of its true value (as in HdrHistogram).
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;            // Linear sub-buckets per power of two
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS; // Enough to cover every positive long
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong maxValue = new AtomicLong();
+
+    /**
+     * Records a single latency.
+     * @param nanos The latency in nanoseconds; negative values are recorded as 0.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(indexOf(value));
+        totalCount.incrementAndGet();
+        maxValue.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * @return The number of recorded latencies.
+     */
+    public long getTotalCount() {
+        return totalCount.get();
+    }
+
+    /**
+     * @return The largest recorded latency in nanoseconds, or 0 if nothing has been recorded.
+     */
+    public long getMaxValue() {
+        return maxValue.get();
+    }
+
+    /**
+     * Returns the latency at or below which the given percentage of recorded latencies fall.
+     * @param percentile A percentage between 0 and 100.
+     * @return The latency in nanoseconds, or 0 if nothing has been recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        long[] snapshot = snapshot();
+        long total = 0;
+        for (long count : snapshot) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(total * Math.min(percentile, 100.0) / 100.0));
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= target) {
+                return Math.min(highestValueOf(i), getMaxValue());
+            }
+        }
+        return getMaxValue();
+    }
+
+    /**
+     * Writes the recorded distribution in the text layout used by HdrHistogram's percentile output,
+     * so it can be plotted with the usual .hgrm tooling. Numbers are always written with a '.' decimal point,
+     * as HdrHistogram does, whatever the default locale.
+     * @param out         Where to write the distribution.
+     * @param scaleFactor The divisor applied to nanosecond values, e.g. 1_000_000.0 for milliseconds.
+     */
+    public void writePercentileDistribution(PrintWriter out, double scaleFactor) {
+        long[] snapshot = snapshot();
+        long total = 0;
+        for (long count : snapshot) {
+            total += count;
+        }
+        out.printf(Locale.US, "%12s %14s %10s %14s%n%n", "Value", "Percentile", "TotalCount", "1/(1-Percentile)");
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            if (snapshot[i] == 0) {
+                continue;
+            }
+            seen += snapshot[i];
+            double fraction = (double) seen / total;
+            double value = Math.min(highestValueOf(i), getMaxValue()) / scaleFactor;
+            if (seen < total) {
+                out.printf(Locale.US, "%12.3f %2.12f %10d %14.2f%n", value, fraction, seen, 1 / (1 - fraction));
+            } else {
+                out.printf(Locale.US, "%12.3f %2.12f %10d%n", value, fraction, seen);
+            }
+        }
+        out.printf(Locale.US, "#[Max     = %12.3f, Total count    = %12d]%n", getMaxValue() / scaleFactor, total);
+    }
+
+    private long[] snapshot() {
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Maps a value to its bucket: values below 16 get their own bucket, larger values share one
+     * with the other values that have the same highest bit and the same next four bits.
+     */
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (magnitude - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (magnitude - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * @return The largest value that maps to the given bucket.
+     */
+    private static long highestValueOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int magnitude = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int subBucket = index % SUB_BUCKETS;
+        long lowest = (long) (SUB_BUCKETS + subBucket) << (magnitude - SUB_BUCKET_BITS);
+        return lowest + (1L << (magnitude - SUB_BUCKET_BITS)) - 1;
+    }
+}
@@ -0,0 +1,133 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays a recorded workload trace against the bathroom simulation.
+ * Every recorded user thread gets its own replay thread, with the same role and priority, which requests a stall
+ * at the original pace, at a scaled pace, or immediately. Stall usage times are scaled by the same factor,
+ * and dropped entirely at maximum speed, so that the stall allocation itself becomes the bottleneck.
+ */
+public class TraceReplayer {
+    public static final double MAX_SPEED = Double.POSITIVE_INFINITY; // Ignore the recorded timestamps
+
+    private final List<WorkloadTrace.Event> events; // Recorded events, in recording order
+    private final double speed;                     // 1.0 is the original pace, 2.0 twice as fast, and so on
+
+    /**
+     * Constructor to initialize the replayer with the events to replay.
+     * @param events The recorded events.
+     * @param speed  The factor by which to speed up the recorded pace, or {@link #MAX_SPEED}.
+     * @throws IllegalArgumentException If the speed is not positive.
+     */
+    public TraceReplayer(List<WorkloadTrace.Event> events, double speed) {
+        if (!(speed > 0)) {
+            throw new IllegalArgumentException("Replay speed must be positive");
+        }
+        this.events = events;
+        this.speed = speed;
+    }
+
+    /**
+     * Replays every recorded stall request and waits until all users have left the bathroom.
+     * @throws InterruptedException If the calling thread is interrupted while waiting.
+     */
+    public void replay() throws InterruptedException {
+        // Keep each recorded thread's requests together so their relative order is preserved
+        Map<Long, List<WorkloadTrace.Event>> eventsByThread = new LinkedHashMap<>();
+        for (WorkloadTrace.Event event : events) {
+            eventsByThread.computeIfAbsent(event.threadId(), id -> new ArrayList<>()).add(event);
+        }
+
+        long startNanos = System.nanoTime();
+        List<Thread> threads = new ArrayList<>();
+        for (Map.Entry<Long, List<WorkloadTrace.Event>> entry : eventsByThread.entrySet()) {
+            List<WorkloadTrace.Event> threadEvents = entry.getValue();
+            Thread thread = new Thread(() -> {
+                try {
+                    for (WorkloadTrace.Event event : threadEvents) {
+                        awaitOffset(startNanos, event.timestampNanos());
+                        new FloorBathroomSimulation.BathroomUsers(event.isEmployee(), scaleUsage(event.usageMillis())).run();
+                    }
+                } catch (InterruptedException e) {
+                    System.err.println(Thread.currentThread().getName() + " was interrupted while replaying requests.");
+                    Thread.currentThread().interrupt(); // Restore the interrupted status
+                }
+            }, "Replay-" + entry.getKey());
+            // A recorded thread only ever acts for one user, so its first request determines the priority
+            thread.setPriority(threadEvents.get(0).isEmployee() ? Thread.MAX_PRIORITY : Thread.NORM_PRIORITY);
+            threads.add(thread);
+            thread.start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    /**
+     * Scales a recorded stall usage time by the replay speed.
+     */
+    private int scaleUsage(int usageMillis) {
+        return speed == MAX_SPEED ? 0 : (int) (usageMillis / speed);
+    }
+
+    /**
+     * Sleeps until the scaled offset from the start of the replay has been reached.
+     */
+    private void awaitOffset(long startNanos, long offsetNanos) throws InterruptedException {
+        if (speed == MAX_SPEED) {
+            return;
+        }
+        long delay = startNanos + (long) (offsetNanos / speed) - System.nanoTime();
+        if (delay > 0) {
+            TimeUnit.NANOSECONDS.sleep(delay);
+        }
+    }
+
+    /**
+     * Parses a replay speed given on the command line.
+     * @param value A positive factor such as "1" or "2.5", or "max".
+     * @return The replay speed.
+     * @throws IllegalArgumentException If the value is not a valid speed.
+     */
+    static double parseSpeed(String value) {
+        double speed = value.equalsIgnoreCase("max") ? MAX_SPEED : Double.parseDouble(value);
+        if (!(speed > 0)) {
+            throw new IllegalArgumentException("Replay speed must be positive");
+        }
+        return speed;
+    }
+
+    /**
+     * Replays a trace against the bathroom simulation.
+     * @param args The trace file, optionally followed by the replay speed (defaults to 1).
+     * @throws IOException          If the trace cannot be read.
+     * @throws InterruptedException If the main thread is interrupted during execution.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.err.println("Usage: TraceReplayer <trace-file> [speed|max]");
+            return;
+        }
+        double speed;
+        try {
+            speed = args.length > 1 ? parseSpeed(args[1]) : 1.0;
+        } catch (IllegalArgumentException e) { // Also covers NumberFormatException
+            System.err.println("Invalid replay speed: " + args[1]);
+            System.err.println("Usage: TraceReplayer <trace-file> [speed|max]");
+            return;
+        }
+        List<WorkloadTrace.Event> events = WorkloadTrace.read(Path.of(args[0]));
+
+        FloorBathroomSimulation.registerTelemetry();
+        long startNanos = System.nanoTime();
+        new TraceReplayer(events, speed).replay();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        System.out.println("Replayed " + events.size() + " stall requests in " + elapsedMillis + "ms.");
+    }
+}
@@ -0,0 +1,176 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary trace of the stall requests made in the bathroom simulation.
+ * A trace starts with a header (magic, version, scenario) followed by fixed-size records,
+ * each holding the event type, the nanoseconds elapsed since recording started,
+ * the ID of the requesting thread, the user's role and how long they used the stall.
+ */
+public final class WorkloadTrace {
+    static final int MAGIC = 0x574C5452;          // "WLTR"
+    static final short VERSION = 1;
+    static final byte SCENARIO_BATHROOM = 3;
+    static final byte STALL_REQUESTED = 1;
+
+    private static final int HEADER_SIZE = 4 + 2 + 1;         // magic + version + scenario
+    private static final int EVENT_SIZE = 1 + 8 + 8 + 1 + 4;  // type + timestamp + thread ID + role + usage time
+    private static final int BUFFER_SIZE = 64 * 1024;         // Size of the NIO buffer used for reads and writes
+
+    private WorkloadTrace() {
+    }
+
+    /**
+     * A single recorded stall request.
+     *
+     * @param timestampNanos Nanoseconds elapsed since recording started.
+     * @param threadId       The ID of the requesting thread.
+     * @param isEmployee     True if the user was an Employee, false if a Student.
+     * @param usageMillis    How long the user occupied the stall, in milliseconds.
+     */
+    public record Event(long timestampNanos, long threadId, boolean isEmployee, int usageMillis) {
+    }
+
+    /**
+     * Appends events to a trace file through a buffered file channel.
+     * Recording is thread-safe; the buffer is flushed to disk whenever it fills up and on close.
+     */
+    public static final class Recorder implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private final long startNanos = System.nanoTime(); // Origin of all recorded timestamps
+
+        private Recorder(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * Creates (or truncates) the trace file and writes its header.
+         *
+         * @param path The file to record to.
+         * @return A recorder writing to the file.
+         * @throws IOException If the file cannot be opened.
+         */
+        public static Recorder open(Path path) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            Recorder recorder = new Recorder(channel);
+            recorder.buffer.putInt(MAGIC).putShort(VERSION).put(SCENARIO_BATHROOM);
+            return recorder;
+        }
+
+        /**
+         * Records a stall request made by the current thread.
+         *
+         * @param isEmployee  True if the user is an Employee, false if a Student.
+         * @param usageMillis How long the user will occupy the stall, in milliseconds.
+         * @throws UncheckedIOException If the buffer cannot be flushed to disk.
+         */
+        public synchronized void recordStallRequest(boolean isEmployee, int usageMillis) {
+            if (buffer.remaining() < EVENT_SIZE) {
+                flush();
+            }
+            buffer.put(STALL_REQUESTED)
+                    .putLong(System.nanoTime() - startNanos)
+                    .putLong(Thread.currentThread().threadId())
+                    .put((byte) (isEmployee ? 1 : 0))
+                    .putInt(usageMillis);
+        }
+
+        private void flush() {
+            try {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                buffer.clear();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write workload trace", e);
+            }
+        }
+
+        /**
+         * Flushes any buffered events and closes the trace file.
+         *
+         * @throws IOException If the file cannot be written or closed.
+         */
+        @Override
+        public synchronized void close() throws IOException {
+            try {
+                flush();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Reads every event from a trace file, in the order they were recorded.
+     *
+     * @param path The trace file to read.
+     * @return The recorded events.
+     * @throws IOException If the file cannot be read or is not a bathroom trace.
+     */
+    public static List<Event> read(Path path) throws IOException {
+        List<Event> events = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).flip(); // Start empty, in read mode
+            if (!fill(channel, buffer, HEADER_SIZE)) {
+                throw new EOFException("Trace is missing its header");
+            }
+            if (buffer.getInt() != MAGIC || buffer.getShort() != VERSION || buffer.get() != SCENARIO_BATHROOM) {
+                throw new IOException("Not a version " + VERSION + " bathroom trace: " + path);
+            }
+            while (fill(channel, buffer, EVENT_SIZE)) {
+                byte type = buffer.get();
+                if (type != STALL_REQUESTED) {
+                    throw new IOException("Unknown event type " + type + " in " + path);
+                }
+                long timestampNanos = buffer.getLong();
+                long threadId = buffer.getLong();
+                boolean isEmployee = buffer.get() != 0;
+                int usageMillis = buffer.getInt();
+                if (usageMillis < 0) {
+                    throw new IOException("Negative usage time " + usageMillis + " in " + path);
+                }
+                events.add(new Event(timestampNanos, threadId, isEmployee, usageMillis));
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Ensures at least the requested number of bytes are available in the buffer.
+     *
+     * @return True if the bytes are available, false if the file ended cleanly before any of them.
+     * @throws EOFException If the file ends part-way through a record.
+     */
+    private static boolean fill(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return true;
+        }
+        buffer.compact();
+        while (buffer.position() < bytes) {
+            if (channel.read(buffer) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        if (buffer.remaining() >= bytes) {
+            return true;
+        }
+        if (buffer.hasRemaining()) {
+            throw new EOFException("Trace ends with a truncated record");
+        }
+        return false;
+    }
+}
@@ -1,11 +1,27 @@
+import java.io.IOException;
+import java.nio.file.Path;
+
 /**
  * The entry point of the program.
  * Demonstrates the functionality of the TransactionSystem by testing various scenarios with all actions in separate threads.
  */
 public class Main {
-    public static void main(String[] args) {
+    /**
+     * Runs the demonstration scenarios.
+     *
+     * @param args Command-line arguments; "--record <file>" records the operations for {@link TraceReplayer}.
+     * @throws IOException If the trace file cannot be written.
+     */
+    public static void main(String[] args) throws IOException {
         TransactionSystem transactionSystem = new TransactionSystem();
 
+        // Optionally record the workload so it can be replayed later
+        WorkloadTrace.Recorder recorder = null;
+        if (args.length >= 2 && args[0].equals("--record")) {
+            recorder = WorkloadTrace.Recorder.open(Path.of(args[1]));
+            transactionSystem.setTraceRecorder(recorder);
+        }
+
         // Create accounts
         BankAccount account1 = new BankAccount(1, 1000);
         BankAccount account2 = new BankAccount(2, 1000);
@@ -69,6 +85,11 @@ public class Main {
             e.printStackTrace();
         }
 
+        if (recorder != null) {
+            transactionSystem.setTraceRecorder(null);
+            recorder.close();
+        }
+
         // Print final balances after all scenarios
         System.out.println("Final balances after all scenarios:");
         printBalances(account1, account2, account3);
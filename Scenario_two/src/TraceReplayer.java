@@ -0,0 +1,158 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays a recorded workload trace against a transaction system.
+ * Recorded accounts are added up front; every recorded thread then gets its own replay thread, which performs
+ * the same transfers and reversals in the same order, at the original pace, at a scaled pace, or as fast as possible.
+ */
+public class TraceReplayer {
+    public static final double MAX_SPEED = Double.POSITIVE_INFINITY; // Ignore the recorded timestamps
+
+    private final List<WorkloadTrace.Event> events; // Recorded events, in recording order
+    private final double speed;                     // 1.0 is the original pace, 2.0 twice as fast, and so on
+
+    /**
+     * Constructor to initialize the replayer with the events to replay.
+     *
+     * @param events The recorded events.
+     * @param speed  The factor by which to speed up the recorded pace, or {@link #MAX_SPEED}.
+     * @throws IllegalArgumentException If the speed is not positive.
+     */
+    public TraceReplayer(List<WorkloadTrace.Event> events, double speed) {
+        if (!(speed > 0)) {
+            throw new IllegalArgumentException("Replay speed must be positive");
+        }
+        this.events = events;
+        this.speed = speed;
+    }
+
+    /**
+     * Adds the recorded accounts, performs every recorded operation and waits until all of them have completed.
+     * Operations that fail are reported the same way {@link Main} reports them, and replay carries on.
+     *
+     * @param transactionSystem The transaction system to drive.
+     * @throws InterruptedException If the calling thread is interrupted while waiting.
+     */
+    public void replay(TransactionSystem transactionSystem) throws InterruptedException {
+        // Keep each recorded thread's operations together so their relative order is preserved
+        Map<Long, List<WorkloadTrace.Event>> eventsByThread = new LinkedHashMap<>();
+        for (WorkloadTrace.Event event : events) {
+            if (event.type() == WorkloadTrace.ACCOUNT_ADDED) {
+                // Accounts must exist before any replay thread starts
+                transactionSystem.addAccount(new BankAccount(event.fromAccountId(), event.amount()));
+            } else {
+                eventsByThread.computeIfAbsent(event.threadId(), id -> new ArrayList<>()).add(event);
+            }
+        }
+
+        long startNanos = System.nanoTime();
+        List<Thread> threads = new ArrayList<>();
+        for (Map.Entry<Long, List<WorkloadTrace.Event>> entry : eventsByThread.entrySet()) {
+            List<WorkloadTrace.Event> threadEvents = entry.getValue();
+            Thread thread = new Thread(() -> {
+                try {
+                    for (WorkloadTrace.Event event : threadEvents) {
+                        awaitOffset(startNanos, event.timestampNanos());
+                        perform(transactionSystem, event);
+                    }
+                } catch (InterruptedException e) {
+                    System.out.println(Thread.currentThread().getName() + " was interrupted while replaying operations.");
+                    Thread.currentThread().interrupt(); // Restore the interrupted status
+                }
+            }, "Replay-" + entry.getKey());
+            threads.add(thread);
+            thread.start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    /**
+     * Performs a single recorded transfer or reversal.
+     */
+    private static void perform(TransactionSystem transactionSystem, WorkloadTrace.Event event) {
+        try {
+            if (event.type() == WorkloadTrace.TRANSFER) {
+                transactionSystem.transfer(event.fromAccountId(), event.toAccountId(), event.amount());
+            } else {
+                transactionSystem.reverseTransaction(event.fromAccountId(), event.toAccountId(), event.amount());
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println(Thread.currentThread().getName() + ": Error - " + e.getMessage());
+        }
+    }
+
+    /**
+     * Sleeps until the scaled offset from the start of the replay has been reached.
+     */
+    private void awaitOffset(long startNanos, long offsetNanos) throws InterruptedException {
+        if (speed == MAX_SPEED) {
+            return;
+        }
+        long delay = startNanos + (long) (offsetNanos / speed) - System.nanoTime();
+        if (delay > 0) {
+            TimeUnit.NANOSECONDS.sleep(delay);
+        }
+    }
+
+    /**
+     * Parses a replay speed given on the command line.
+     *
+     * @param value A positive factor such as "1" or "2.5", or "max".
+     * @return The replay speed.
+     * @throws IllegalArgumentException If the value is not a valid speed.
+     */
+    static double parseSpeed(String value) {
+        double speed = value.equalsIgnoreCase("max") ? MAX_SPEED : Double.parseDouble(value);
+        if (!(speed > 0)) {
+            throw new IllegalArgumentException("Replay speed must be positive");
+        }
+        return speed;
+    }
+
+    /**
+     * Replays a trace against a fresh transaction system and prints the final balances.
+     *
+     * @param args The trace file, optionally followed by the replay speed (defaults to 1).
+     * @throws IOException          If the trace cannot be read.
+     * @throws InterruptedException If the main thread is interrupted during execution.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.err.println("Usage: TraceReplayer <trace-file> [speed|max]");
+            return;
+        }
+        double speed;
+        try {
+            speed = args.length > 1 ? parseSpeed(args[1]) : 1.0;
+        } catch (IllegalArgumentException e) { // Also covers NumberFormatException
+            System.err.println("Invalid replay speed: " + args[1]);
+            System.err.println("Usage: TraceReplayer <trace-file> [speed|max]");
+            return;
+        }
+        List<WorkloadTrace.Event> events = WorkloadTrace.read(Path.of(args[0]));
+
+        TransactionSystem transactionSystem = new TransactionSystem();
+        long startNanos = System.nanoTime();
+        new TraceReplayer(events, speed).replay(transactionSystem);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+
+        long operations = events.stream().filter(event -> event.type() != WorkloadTrace.ACCOUNT_ADDED).count();
+        System.out.println("Replayed " + operations + " operations in " + elapsedMillis + "ms.");
+        System.out.println("Final balances:");
+        for (WorkloadTrace.Event event : events) {
+            if (event.type() == WorkloadTrace.ACCOUNT_ADDED) {
+                BankAccount account = transactionSystem.getAccount(event.fromAccountId());
+                System.out.println("Account " + account.getId() + ": " + account.getBalance());
+            }
+        }
+    }
+}
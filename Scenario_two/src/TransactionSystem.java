@@ -10,6 +10,16 @@ import java.util.List;
 public class TransactionSystem {
     private final Map<Integer, BankAccount> accounts = new HashMap<>(); // Stores all accounts
     private final List<String> transactions = new ArrayList<>(); // Tracks successful transactions
+    private volatile WorkloadTrace.Recorder traceRecorder; // Records performed operations when set, otherwise null
+
+    /**
+     * Starts or stops recording the operations performed on this system.
+     *
+     * @param traceRecorder The recorder to write operations to, or null to stop recording.
+     */
+    public void setTraceRecorder(WorkloadTrace.Recorder traceRecorder) {
+        this.traceRecorder = traceRecorder;
+    }
 
     /**
      * Adds a new account to the system.
@@ -17,6 +27,7 @@ public class TransactionSystem {
      * @param account The account to add.
      */
     public void addAccount(BankAccount account) {
+        record(WorkloadTrace.ACCOUNT_ADDED, account.getId(), 0, account.getBalance());
         accounts.put(account.getId(), account);
     }
 
@@ -41,6 +52,7 @@ public class TransactionSystem {
      * @throws IllegalArgumentException If the source or destination account does not exist or if the source account has insufficient balance.
      */
     public void transfer(int fromAccountId, int toAccountId, double amount) {
+        record(WorkloadTrace.TRANSFER, fromAccountId, toAccountId, amount);
         BankAccount fromAccount = accounts.get(fromAccountId);
         BankAccount toAccount = accounts.get(toAccountId);
 
@@ -83,6 +95,7 @@ public class TransactionSystem {
      * @throws IllegalArgumentException If the transaction does not exist or if the accounts are invalid.
      */
     public void reverseTransaction(int fromAccountId, int toAccountId, double amount) {
+        record(WorkloadTrace.REVERSAL, fromAccountId, toAccountId, amount);
         String transactionKey = fromAccountId + "-" + toAccountId + "-" + amount;
         if (!transactions.contains(transactionKey)) {
             throw new IllegalArgumentException("Cannot reverse: No such transaction exists");
@@ -119,4 +132,15 @@ public class TransactionSystem {
             firstLock.unlock();
         }
     }
+
+    /**
+     * Records an operation if recording is enabled.
+     * Operations are recorded as requested, so failed ones are replayed too.
+     */
+    private void record(byte type, int fromAccountId, int toAccountId, double amount) {
+        WorkloadTrace.Recorder recorder = traceRecorder;
+        if (recorder != null) {
+            recorder.record(type, fromAccountId, toAccountId, amount);
+        }
+    }
 }
\ No newline at end of file